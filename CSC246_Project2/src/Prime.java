@@ -50,21 +50,7 @@ public class Prime {
 			int nums = values.length;
 			for (int i = 0; i < nums; i++) {
 				int value = values[i];
-				boolean found = false;
-				if (value <= 1) {
-					continue;
-				} else if (value <= 3) {
-					found = true;
-				} else if (value % 2 == 0 || value % 3 == 0) {
-					continue;
-				} else {
-					found = true;
-					for (int j = 5; j * j <= value; j += 6) {
-						if (value % j == 0 || value % (j + 2) == 0)
-							found = false;
-					}
-				}
-				if (found) {
+				if (isPrime(value)) {
 					count++;
 					if (report)
 						System.out.println(value);
@@ -83,6 +69,28 @@ public class Prime {
 
 	}
 
+	/**
+	 * Checks whether the given value is prime. Shared with PrimeServer so both
+	 * the one-shot program and the service mode agree on the answer.
+	 * 
+	 * @param value the value to check for primeness
+	 * @return true if the value is prime, false otherwise
+	 */
+	static boolean isPrime(int value) {
+		if (value <= 1) {
+			return false;
+		} else if (value <= 3) {
+			return true;
+		} else if (value % 2 == 0 || value % 3 == 0) {
+			return false;
+		}
+		for (int j = 5; j <= value / j; j += 6) {
+			if (value % j == 0 || value % (j + 2) == 0)
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Starting point of the program. Creates threads and waits for them to finish
 	 * the execution
@@ -0,0 +1,226 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Scanner;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Client for PrimeServer. It reads a list of integer values from standard
+ * input, just like Prime, sends them to the server in batches and reports how
+ * many of them are prime. With the report option it asks for a bitmap of the
+ * primes and prints each prime value. Batches are pipelined: a sending thread
+ * keeps up to a window of batches outstanding while the main thread reads the
+ * replies, so the server always has the next batch waiting. When it is done it
+ * reports how long the batches took and the resulting throughput, so a warm
+ * server can be compared against running Prime directly. With a window of 1
+ * the figure is for a single synchronous stream, which is mostly round-trip
+ * latency.
+ * run : java PrimeClient localhost 10000 4 (with input-4.txt on standard input)
+ *
+ * @author Vy Nguyen (tnguye28)
+ */
+public class PrimeClient {
+	/** Number of values sent per batch when none is given. */
+	public static final int DEFAULT_BATCH = 10000;
+
+	/** Number of batches allowed in flight when none is given. */
+	public static final int DEFAULT_WINDOW = 4;
+
+	/**
+	 * The subclass of Thread that sends the batches to the server. It waits for a
+	 * free spot in the window before sending each one, so at most a window of
+	 * batches are waiting on the server at a time.
+	 */
+	private static class SendThread extends Thread {
+		/** the socket to close if sending fails */
+		private Socket sock;
+		/** the stream to send the batches on */
+		private DataOutputStream output;
+		/** the values to send */
+		private ArrayList<Integer> vList;
+		/** the number of values in each batch */
+		private int batch;
+		/** the request mode for every batch */
+		private byte mode;
+		/** free spots in the window of outstanding batches */
+		private Semaphore window;
+
+		/**
+		 * Constructor method for SendThread
+		 *
+		 * @param sock   the socket connected to the server
+		 * @param output the stream to send the batches on
+		 * @param vList  the values to send
+		 * @param batch  the number of values in each batch
+		 * @param mode   the request mode for every batch
+		 * @param window free spots in the window of outstanding batches
+		 */
+		public SendThread(Socket sock, DataOutputStream output, ArrayList<Integer> vList, int batch, byte mode,
+				Semaphore window) {
+			this.sock = sock;
+			this.output = output;
+			this.vList = vList;
+			this.batch = batch;
+			this.mode = mode;
+			this.window = window;
+		}
+
+		public void run() {
+			int vCount = vList.size();
+			try {
+				for (int start = 0; start < vCount; start += batch) {
+					int nums = Math.min(batch, vCount - start);
+					ByteBuffer request = ByteBuffer.allocate(1 + nums * 4);
+					request.put(mode);
+					for (int i = 0; i < nums; i++) {
+						request.putInt(vList.get(start + i));
+					}
+					window.acquire();
+					Server.putMessage(output, request.array());
+				}
+			} catch (IOException e) {
+				System.err.println("IO Error: " + e);
+				closeSocket(sock);
+			} catch (InterruptedException e) {
+				// Stopped by the reader, or interrupted on our own. Either way close the
+				// socket so the reader can't be left waiting on a reply.
+				closeSocket(sock);
+			}
+		}
+	}
+
+	/**
+	 * Entry point for the program, set up the socket to the server.
+	 */
+	public static void main(String[] args) {
+		int length = args.length;
+		if (length < 1 || length > 4) {
+			usage();
+		}
+		int batch = DEFAULT_BATCH;
+		int windowSize = DEFAULT_WINDOW;
+		boolean report = false;
+		int numbers = 0;
+		for (int i = 1; i < length; i++) {
+			if (args[i].equals("report")) {
+				report = true;
+			} else {
+				try {
+					if (numbers == 0) {
+						batch = Integer.parseInt(args[i]);
+					} else if (numbers == 1) {
+						windowSize = Integer.parseInt(args[i]);
+					} else {
+						usage();
+					}
+					numbers++;
+				} catch (NumberFormatException e) {
+					usage();
+				}
+			}
+		}
+		if (batch < 1 || batch > PrimeServer.BATCH_MAX) {
+			System.out.println("Batch size must be between 1 and " + PrimeServer.BATCH_MAX + ".");
+			System.exit(1);
+		}
+		if (windowSize < 1) {
+			System.out.println("Window must be a positive number.");
+			System.exit(1);
+		}
+
+		// Read the whole list first so the timing only covers the server.
+		ArrayList<Integer> vList = new ArrayList<Integer>();
+		Scanner sc = new Scanner(System.in);
+		while (sc.hasNextInt()) {
+			vList.add(sc.nextInt());
+		}
+		sc.close();
+		int vCount = vList.size();
+
+		Socket sock = null;
+		SendThread sender = null;
+		try {
+			// Try to create a socket connection to the server.
+			sock = new Socket(args[0], PrimeServer.PORT_NUMBER);
+			DataInputStream input = new DataInputStream(sock.getInputStream());
+			DataOutputStream output = new DataOutputStream(sock.getOutputStream());
+
+			byte mode = report ? PrimeServer.MODE_BITMAP : PrimeServer.MODE_COUNT;
+			Semaphore window = new Semaphore(windowSize);
+			int totalCount = 0;
+			int batches = 0;
+			long begin = System.nanoTime();
+			sender = new SendThread(sock, output, vList, batch, mode, window);
+			sender.start();
+
+			// Replies come back in the order the batches were sent.
+			for (int start = 0; start < vCount; start += batch) {
+				int nums = Math.min(batch, vCount - start);
+
+				// Read the count, then print the primes if we asked for the bitmap.
+				ByteBuffer reply = ByteBuffer.wrap(Server.getMessage(input));
+				window.release();
+				totalCount += reply.getInt();
+				if (report) {
+					for (int i = 0; i < nums; i++) {
+						if ((reply.get(4 + i / 8) & (1 << (i % 8))) != 0)
+							System.out.println(vList.get(start + i));
+					}
+				}
+				batches++;
+			}
+			long elapsed = System.nanoTime() - begin;
+
+			try {
+				sender.join();
+			} catch (InterruptedException e) {
+				System.err.println("Interrupted during join!");
+			}
+
+			// An empty message tells the server we are done.
+			Server.putMessage(output, new byte[0]);
+
+			double seconds = elapsed / 1e9;
+			System.out.println("Prime count: " + totalCount);
+			System.out.printf("Checked %d values in %d batches (window %d) in %.3f s (%.0f values/s)\n", vCount,
+					batches, windowSize, seconds, seconds > 0 ? vCount / seconds : 0.0);
+		} catch (IOException e) {
+			System.err.println("IO Error: " + e);
+		} finally {
+			// If the replies stopped early, the sender may be waiting on the window for
+			// a reply that will never come, so stop it before leaving.
+			if (sender != null)
+				sender.interrupt();
+			closeSocket(sock);
+		}
+	}
+
+	/**
+	 * Closes the given socket, ignoring any errors since we are done with it.
+	 *
+	 * @param sock the socket to close, may be null
+	 */
+	private static void closeSocket(Socket sock) {
+		if (sock != null) {
+			try {
+				sock.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * This static method prints out the usage message and exits the program
+	 * unsuccessfully
+	 */
+	private static void usage() {
+		System.out.println("usage: PrimeClient <host>");
+		System.out.println("       PrimeClient <host> <batch>");
+		System.out.println("       PrimeClient <host> <batch> <window>");
+		System.out.println("       PrimeClient <host> [<batch> [<window>]] report");
+		System.exit(1);
+	}
+}
@@ -0,0 +1,289 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Long-running service mode for Prime. Instead of paying JVM startup and JIT
+ * warm-up for every list of values, this server keeps a fixed pool of worker
+ * threads alive and accepts batches of integers over TCP. Messages use the
+ * same length-prefixed framing as Server.getMessage/putMessage.
+ *
+ * A request is a mode byte ('c' for a prime count, 'b' for a bitmap of which
+ * values are prime) followed by the values as 4-byte big-endian ints. The reply
+ * is the prime count as a 4-byte int, followed in bitmap mode by one bit per
+ * value (bit i % 8 of byte i / 8 is set if value i is prime). An empty message
+ * ends the session.
+ *
+ * The number of chunks queued or running in the pool is bounded, so when the
+ * workers fall behind, connection threads stop reading from their sockets and
+ * clients are slowed down by TCP. The number of connections being served is
+ * bounded as well, and each one holds at most one batch, so the memory used
+ * for batches is bounded too. Extra clients wait in the listen backlog until
+ * a connection closes.
+ * compile : javac PrimeServer.java
+ * run : java PrimeServer 4
+ *
+ * @author Vy Nguyen (tnguye28)
+ */
+public class PrimeServer {
+	/** Port number used by the prime service */
+	public static final int PORT_NUMBER = 26101;
+
+	/** Request mode asking only for the number of primes in the batch */
+	public static final byte MODE_COUNT = 'c';
+
+	/** Request mode asking for the count and a bitmap of the primes */
+	public static final byte MODE_BITMAP = 'b';
+
+	/** Maximum number of values accepted in a single batch. */
+	public static final int BATCH_MAX = 1 << 20;
+
+	/** Worker pool shared by all connections. */
+	private ExecutorService pool;
+
+	/** Limits how many chunks can be waiting in or running on the pool. */
+	private Semaphore slots;
+
+	/** Limits how many client connections are served at once. */
+	private Semaphore clients;
+
+	/** Number of chunks each batch is split into. */
+	private int threads;
+
+	/**
+	 * A subclass thread that serves one client connection. Each batch is split
+	 * across the worker pool the same way Prime splits its list across threads.
+	 */
+	private class ServiceThread extends Thread {
+		// the pointer to the sock descriptor for this client
+		private Socket sock;
+
+		/**
+		 * Constructor method for this thread
+		 *
+		 * @param socketOfServer a unique socket for this client connection
+		 */
+		public ServiceThread(Socket socketOfServer) {
+			this.sock = socketOfServer;
+		}
+
+		/**
+		 * Handle interaction with our client, close it when we're done.
+		 */
+		@Override
+		public void run() {
+			try {
+				DataOutputStream output = new DataOutputStream(sock.getOutputStream());
+				DataInputStream input = new DataInputStream(sock.getInputStream());
+
+				byte[] msg = getBatch(input);
+				while (msg.length > 0) {
+					byte mode = msg[0];
+					int nums = (msg.length - 1) / 4;
+					// getBatch already limited the batch to BATCH_MAX values.
+					if ((mode != MODE_COUNT && mode != MODE_BITMAP) || (msg.length - 1) % 4 != 0) {
+						throw new IllegalArgumentException("Invalid batch");
+					}
+					ByteBuffer buf = ByteBuffer.wrap(msg, 1, msg.length - 1);
+					int[] values = new int[nums];
+					for (int i = 0; i < nums; i++) {
+						values[i] = buf.getInt();
+					}
+
+					boolean[] found = check(values);
+
+					// Build the reply: the count, then the bitmap if it was asked for.
+					int count = 0;
+					byte[] bitmap = new byte[mode == MODE_BITMAP ? (nums + 7) / 8 : 0];
+					for (int i = 0; i < nums; i++) {
+						if (found[i]) {
+							count++;
+							if (mode == MODE_BITMAP)
+								bitmap[i / 8] |= 1 << (i % 8);
+						}
+					}
+					ByteBuffer reply = ByteBuffer.allocate(4 + bitmap.length);
+					reply.putInt(count);
+					reply.put(bitmap);
+					Server.putMessage(output, reply.array());
+
+					// Get the next batch.
+					msg = getBatch(input);
+				}
+			} catch (EOFException e) {
+				// Client went away without saying goodbye.
+			} catch (IOException e) {
+				System.out.println("IO Error: " + e);
+			} catch (IllegalArgumentException e) {
+				System.out.println("Bad request: " + e.getMessage());
+			} catch (IllegalStateException e) {
+				System.out.println("Worker failed: " + e.getCause());
+			} catch (InterruptedException e) {
+				System.out.println("Interrupted while waiting on workers!");
+			} finally {
+				try {
+					// Close the socket on the way out.
+					sock.close();
+				} catch (Exception e) {
+				}
+				// Let the next waiting client in.
+				clients.release();
+			}
+		}
+	}
+
+	/**
+	 * Reads one batch like Server.getMessage, but checks the length before
+	 * allocating anything so a client can't make us allocate an arbitrary amount
+	 * of memory.
+	 *
+	 * @param input the stream to read the batch from
+	 * @return the contents of the message
+	 * @throws IOException              if the message can't be read
+	 * @throws IllegalArgumentException if the length is negative or longer than
+	 *                                  BATCH_MAX values, the same way the other
+	 *                                  malformed batches are reported
+	 */
+	private static byte[] getBatch(DataInputStream input) throws IOException {
+		int len = input.readInt();
+		if (len < 0 || len > 1 + 4 * BATCH_MAX) {
+			throw new IllegalArgumentException("Invalid batch length " + len);
+		}
+		byte[] msg = new byte[len];
+		input.readFully(msg);
+		return msg;
+	}
+
+	/**
+	 * Checks every value in the batch for primeness on the worker pool. Blocks
+	 * while the pool is full, which is what pushes back on the client.
+	 *
+	 * @param values the batch of values to check
+	 * @return an array where element i is true if values[i] is prime
+	 * @throws InterruptedException if interrupted while waiting on the pool
+	 */
+	private boolean[] check(int[] values) throws InterruptedException {
+		int nums = values.length;
+		boolean[] found = new boolean[nums];
+		int chunks = Math.min(threads, nums);
+		ArrayList<Future<?>> futures = new ArrayList<Future<?>>(chunks);
+		for (int i = 0; i < chunks; i++) {
+			final int start = i;
+			final int stride = chunks;
+			slots.acquire();
+			try {
+				futures.add(pool.submit(() -> {
+					try {
+						for (int j = start; j < nums; j += stride) {
+							found[j] = Prime.isPrime(values[j]);
+						}
+					} finally {
+						slots.release();
+					}
+				}));
+			} catch (RuntimeException e) {
+				slots.release();
+				throw e;
+			}
+		}
+		for (Future<?> f : futures) {
+			try {
+				f.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Worker failed", e.getCause());
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Essentially, the main method for our server, as an instance method so we can
+	 * access non-static fields.
+	 */
+	@SuppressWarnings("resource")
+	private void run(String[] args) {
+		int length = args.length;
+		if (length < 1 || length > 3) {
+			usage();
+		}
+		int queue = 0;
+		int maxClients = 0;
+		try {
+			threads = Integer.parseInt(args[0]);
+			queue = length >= 2 ? Integer.parseInt(args[1]) : threads * 2;
+			maxClients = length == 3 ? Integer.parseInt(args[2]) : threads;
+		} catch (NumberFormatException e) {
+			usage();
+		}
+		if (threads < 1 || queue < 1 || maxClients < 1) {
+			fail("Number of threads, queue size and clients must be positive numbers.");
+		}
+
+		pool = Executors.newFixedThreadPool(threads);
+		slots = new Semaphore(queue);
+		clients = new Semaphore(maxClients);
+
+		ServerSocket serverSocket = null;
+		try {
+			// Open a socket for listening.
+			serverSocket = new ServerSocket(PORT_NUMBER);
+		} catch (IOException e) {
+			System.err.println("Can't initialize server: " + e);
+			System.exit(1);
+		}
+
+		// Keep trying to accept new connections and serve them.
+		while (true) {
+			// Wait for a free connection slot before accepting.
+			clients.acquireUninterruptibly();
+			try {
+				Socket sock = serverSocket.accept();
+				new ServiceThread(sock).start();
+			} catch (IOException e) {
+				clients.release();
+				System.err.println("Failure accepting client " + e);
+			}
+		}
+	}
+
+	/**
+	 * This static method prints out the usage message and exits the program
+	 * unsuccessfully
+	 */
+	private static void usage() {
+		System.out.println("usage: PrimeServer <threads>");
+		System.out.println("       PrimeServer <threads> <queue>");
+		System.out.println("       PrimeServer <threads> <queue> <clients>");
+		System.exit(1);
+	}
+
+	/**
+	 * This static method prints out an error message and exit.
+	 *
+	 * @param msg error message to print out
+	 */
+	private static void fail(String msg) {
+		System.out.println(msg);
+		System.exit(1);
+	}
+
+	/**
+	 * Entry point for the program, set up the worker pool and the socket then wait
+	 * for clients. Each client will have its own thread to read batches.
+	 */
+	public static void main(String[] args) {
+		// Make a server object, so we can have non-static fields.
+		PrimeServer server = new PrimeServer();
+		server.run(args);
+	}
+}